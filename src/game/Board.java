@@ -10,7 +10,7 @@ import static game.Piece.*;
  *
  * @author Richard Hu
  * */
-public class Board {
+public class Board implements Position {
 
     /** The total number of possible rows and columns. */
     static final int BOARD_SIZE = 3;
@@ -18,6 +18,24 @@ public class Board {
     /** The regular expression for a square designation (e.g., a3). */
     static final Pattern SQ = Pattern.compile("([a-c][1-3])");
 
+    /** Place strings indexed by square, where the square of a place is
+     * row * BOARD_SIZE + col. */
+    static final String[] PLACES = {
+        "a1", "b1", "c1",
+        "a2", "b2", "c2",
+        "a3", "b3", "c3"
+    };
+
+    /** Mask with a bit set for every square on the board. */
+    public static final int FULL = (1 << (BOARD_SIZE * BOARD_SIZE)) - 1;
+
+    /** Masks of the squares making up each row, column and diagonal. */
+    public static final int[] LINES = {
+        0b000000111, 0b000111000, 0b111000000,
+        0b001001001, 0b010010010, 0b100100100,
+        0b100010001, 0b001010100
+    };
+
     /** Initializes board with all empty spaces. */
     public Board() {
         reset();
@@ -64,6 +82,11 @@ public class Board {
         _winner = board._winner;
     }
 
+    @Override
+    public Board copy() {
+        return new Board(this);
+    }
+
     /** Reset this board to starting configuration. */
     void reset() {
         for (int r = 0; r < BOARD_SIZE; r++) {
@@ -85,6 +108,15 @@ public class Board {
         return new int[] {place.charAt(0) - 'a', place.charAt(1) - '1'};
     }
 
+    /** Convert a place string to a square index.
+     *
+     * @param place Place string.
+     * @return Square of place, given as row * BOARD_SIZE + col.
+     * */
+    public static int square(String place) {
+        return (place.charAt(1) - '1') * BOARD_SIZE + place.charAt(0) - 'a';
+    }
+
     /** Convert board coordinates to place string.
      *
      * @param col Column.
@@ -92,30 +124,7 @@ public class Board {
      * @return Place string
      * */
     String place(int col, int row) {
-        String place = "";
-        switch (col) {
-            case 0:
-                place += "a";
-                break;
-            case 1:
-                place += "b";
-                break;
-            case 2:
-                place += "c";
-                break;
-        }
-        switch (row) {
-            case 0:
-                place += "1";
-                break;
-            case 1:
-                place += "2";
-                break;
-            case 2:
-                place += "3";
-                break;
-        }
-        return place;
+        return PLACES[row * BOARD_SIZE + col];
     }
 
     /** Return a list of all empty places on the Board. Result is cached
@@ -123,6 +132,7 @@ public class Board {
      *
      * @return List of all empty place strings.
      * */
+    @Override
     public List<String> emptyPlaces() {
         if (_emptyPlacesInitialized) {
             return _emptyPlaces;
@@ -160,6 +170,16 @@ public class Board {
         return false;
     }
 
+    /** Put a piece of the current turn on the specified square.
+     *
+     * @param square Square to put piece, given as row * BOARD_SIZE + col.
+     * @return True if piece was put on the square, false if the square
+     * is not empty.
+     * */
+    public boolean put(int square) {
+        return put(square % BOARD_SIZE, square / BOARD_SIZE);
+    }
+
     /** Put a piece of the current turn in the specified location on
      * the board.
      *
@@ -167,6 +187,7 @@ public class Board {
      * @return True if piece was put on the place, false if place string
      * is malformed or place is not empty.
      * */
+    @Override
     public boolean put(String place) {
         if (SQ.matcher(place).matches()) {
             int[] coords = coords(place);
@@ -177,6 +198,7 @@ public class Board {
 
     /** Undo the last move made and return the state of the board to
      * one move prior. */
+    @Override
     public void undo() {
         String recent = _moves.get(_moves.size() - 1);
         int[] coords = coords(recent);
@@ -191,6 +213,7 @@ public class Board {
      *
      * @return _moves.
      * */
+    @Override
     public List<String> moves() {
         return _moves;
     }
@@ -199,14 +222,34 @@ public class Board {
      *
      * @return _turn.
      * */
+    @Override
     public Piece turn() {
         return _turn;
     }
 
+    /** Return the squares occupied by a piece as a bit mask, where bit
+     * row * BOARD_SIZE + col is set iff that square holds the piece.
+     *
+     * @param piece Piece to look for. E gives the empty squares.
+     * @return Mask of squares holding piece.
+     * */
+    public int mask(Piece piece) {
+        int mask = 0;
+        for (int r = 0; r < BOARD_SIZE; r++) {
+            for (int c = 0; c < BOARD_SIZE; c++) {
+                if (_board[r][c] == piece) {
+                    mask |= 1 << (r * BOARD_SIZE + c);
+                }
+            }
+        }
+        return mask;
+    }
+
     /** Return the winner.
      *
      * @return null if there is no winner, E if tie, or the winning Piece.
      * */
+    @Override
     public Piece winner() {
         if (_winnerKnown) {
             return _winner;
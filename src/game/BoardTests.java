@@ -140,4 +140,21 @@ public class BoardTests {
         assertEquals(O, new Board(config7, X).winner());
         assertEquals(O, new Board(config8, X).winner());
     }
+
+    @Test
+    public void maskTest() {
+        Board b = new Board();
+
+        assertEquals(Board.FULL, b.mask(E));
+        assertEquals(0, b.mask(X));
+
+        b.put("a1");
+        b.put(4);
+        b.put("c3");
+        assertEquals(0b100000001, b.mask(X));
+        assertEquals(0b000010000, b.mask(O));
+        assertEquals(Board.FULL & ~0b100010001, b.mask(E));
+        assertEquals("b2", b.moves().get(1));
+        assertFalse(b.put(0));
+    }
 }
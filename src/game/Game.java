@@ -14,8 +14,18 @@ public class Game {
     /** Amount of time the MCTS is allowed to take. */
     static final long MAX_TIME = 1000;
 
+    /** Play a game against the computer.
+     *
+     * @param args "ultimate" to play Ultimate Tic Tac Toe instead of
+     *             Tic Tac Toe.
+     * */
     public static void main(String[] args) {
-        Board board = new Board();
+        Position board;
+        if (args.length > 0 && args[0].equals("ultimate")) {
+            board = new UltimateBoard();
+        } else {
+            board = new Board();
+        }
         Scanner keyboard = new Scanner(System.in);
         Piece winner = board.winner();
 
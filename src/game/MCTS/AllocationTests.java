@@ -0,0 +1,123 @@
+package game.MCTS;
+
+import game.Board;
+import org.junit.Before;
+import org.junit.Test;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+import static game.Piece.*;
+
+/** Tests that the hot paths of the engine stay within a budget of bytes
+ * allocated per call, as measured by the JVM for the current thread. Each
+ * operation is run CALLS times to warm up before it is measured over
+ * another CALLS times. Budgets are about 1.5 times what each operation
+ * allocated when they were set, so only a real regression goes over.
+ *
+ * @author Richard Hu
+ * */
+public class AllocationTests {
+
+    /** Number of calls measured per operation. */
+    static final int CALLS = 20000;
+
+    /** Budget of Board.put(String) followed by Board.undo(). */
+    static final long PUT_UNDO_BUDGET = 384;
+
+    /** Budget of Board.put(int) followed by Board.undo(). */
+    static final long PUT_SQUARE_UNDO_BUDGET = 32;
+
+    /** Budget of Board.put(int), Board.winner() and Board.undo(). */
+    static final long PUT_WINNER_UNDO_BUDGET = 160;
+
+    /** Budget of TreeNode.play() from the empty board. */
+    static final long PLAY_BUDGET = 1536;
+
+    /** Budget of one iteration of findMove from the empty board. */
+    static final long ITERATION_BUDGET = 6144;
+
+    @Before
+    public void checkSupported() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(sunThreads.isThreadAllocatedMemorySupported());
+        sunThreads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void boardTest() {
+        Board b = new Board();
+        b.put("b2");
+        assertBudget("put/undo", PUT_UNDO_BUDGET, bytesPerCall(() -> {
+            b.put("a1");
+            b.undo();
+        }));
+        assertBudget("put square/undo", PUT_SQUARE_UNDO_BUDGET, bytesPerCall(() -> {
+            b.put(0);
+            b.undo();
+        }));
+        assertBudget("put/winner/undo", PUT_WINNER_UNDO_BUDGET, bytesPerCall(() -> {
+            b.put(0);
+            b.winner();
+            b.undo();
+        }));
+    }
+
+    @Test
+    public void playTest() {
+        TreeNode node = new TreeNode(new Board(), null, null);
+        assertBudget("play", PLAY_BUDGET, bytesPerCall(node::play));
+    }
+
+    @Test
+    public void findMoveTest() {
+        MonteCarloTreeSearch.SIDE = X;
+        MonteCarloTreeSearch.setUp(new Board());
+        MonteCarloTreeSearch.findMove(null, Long.MAX_VALUE / 2, CALLS);
+        MonteCarloTreeSearch.setUp(new Board());
+        long before = allocatedBytes();
+        MonteCarloTreeSearch.findMove(null, Long.MAX_VALUE / 2, CALLS);
+        assertBudget("findMove iteration", ITERATION_BUDGET,
+                (allocatedBytes() - before) / CALLS);
+    }
+
+    /** Return the average number of bytes allocated by a call of an
+     * operation, after warming it up.
+     *
+     * @param operation Operation to measure.
+     * @return Bytes allocated per call.
+     * */
+    private static long bytesPerCall(Runnable operation) {
+        for (int i = 0; i < CALLS; i++) {
+            operation.run();
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < CALLS; i++) {
+            operation.run();
+        }
+        return (allocatedBytes() - before) / CALLS;
+    }
+
+    /** Return the number of bytes allocated so far by the current thread.
+     *
+     * @return Bytes allocated.
+     * */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** Fail if an operation went over its budget.
+     *
+     * @param operation Name of the operation.
+     * @param budget Budget of the operation in bytes per call.
+     * @param actual Bytes allocated per call.
+     * */
+    private static void assertBudget(String operation, long budget, long actual) {
+        assertTrue(operation + " allocated " + actual + " bytes per call, budget is "
+                + budget, actual <= budget);
+    }
+}
@@ -0,0 +1,162 @@
+package game.MCTS;
+
+import game.Board;
+import game.Piece;
+
+import static game.Piece.*;
+
+/** Rollout engine playing 64 random games at once in a single thread.
+ * The games are bit-sliced: for every square there is one long per side,
+ * and bit i of that long tells whether the side holds the square in game i.
+ * Every game in a word makes its move on the same step, so a move, a win
+ * check or a tie check is a handful of AND/OR operations shared by all 64
+ * games.
+ *
+ * Moves are chosen uniformly at random. On each step, every game still
+ * looking for a move draws a 4-bit number from four random longs, and takes
+ * that square if it is a valid empty square, drawing again otherwise. On
+ * the last step only one square is left, so it is taken without drawing.
+ *
+ * @author Richard Hu
+ * */
+public class BitSlicedRollout {
+
+    /** Number of games played per word. */
+    public static final int LANES = Long.SIZE;
+
+    /** Number of squares on the board. */
+    static final int SQUARES = 9;
+
+    /** Create an engine with a random seed. */
+    public BitSlicedRollout() {
+        this(System.nanoTime());
+    }
+
+    /** Create an engine with a given seed.
+     *
+     * @param seed Seed of the random number generator.
+     * */
+    public BitSlicedRollout(long seed) {
+        _seed = seed;
+    }
+
+    /** Play random games starting from a board until they end.
+     *
+     * @param board Board to start from.
+     * @param words Number of words of games to play. LANES games are
+     *              played per word.
+     * @return Outcomes of the games.
+     * */
+    public RolloutCounts play(Board board, int words) {
+        Piece winner = board.winner();
+        if (winner != null) {
+            long games = (long) words * LANES;
+            return new RolloutCounts(winner == X ? games : 0, winner == O ? games : 0,
+                    winner == E ? games : 0);
+        }
+        int xMask = board.mask(X);
+        int oMask = board.mask(O);
+        int empties = Integer.bitCount(board.mask(E));
+        boolean xFirst = board.turn() == X;
+        long xWins = 0;
+        long oWins = 0;
+        long draws = 0;
+        for (int w = 0; w < words; w++) {
+            for (int s = 0; s < SQUARES; s++) {
+                _x[s] = (xMask >>> s & 1) != 0 ? -1L : 0L;
+                _o[s] = (oMask >>> s & 1) != 0 ? -1L : 0L;
+            }
+            long playing = -1L;
+            boolean xTurn = xFirst;
+            for (int step = 0; step < empties && playing != 0; step++) {
+                long[] own = xTurn ? _x : _o;
+                if (step == empties - 1) {
+                    fill(own, playing);
+                } else {
+                    move(own, playing);
+                }
+                long won = lines(own) & playing;
+                if (xTurn) {
+                    xWins += Long.bitCount(won);
+                } else {
+                    oWins += Long.bitCount(won);
+                }
+                playing &= ~won;
+                xTurn = !xTurn;
+            }
+            draws += Long.bitCount(playing);
+        }
+        return new RolloutCounts(xWins, oWins, draws);
+    }
+
+    /** Place a piece on a random empty square in every game that is still
+     * being played.
+     *
+     * @param own Squares held by the side to move.
+     * @param playing Games that are still being played.
+     * */
+    private void move(long[] own, long playing) {
+        long pending = playing;
+        while (pending != 0) {
+            long r0 = next();
+            long r1 = next();
+            long r2 = next();
+            long r3 = next();
+            for (int s = 0; s < SQUARES; s++) {
+                long chosen = ((s & 1) != 0 ? r0 : ~r0)
+                        & ((s & 2) != 0 ? r1 : ~r1)
+                        & ((s & 4) != 0 ? r2 : ~r2)
+                        & ((s & 8) != 0 ? r3 : ~r3)
+                        & pending & ~(_x[s] | _o[s]);
+                own[s] |= chosen;
+                pending &= ~chosen;
+            }
+        }
+    }
+
+    /** Place a piece on the only empty square in every game that is still
+     * being played.
+     *
+     * @param own Squares held by the side to move.
+     * @param playing Games that are still being played.
+     * */
+    private void fill(long[] own, long playing) {
+        for (int s = 0; s < SQUARES; s++) {
+            own[s] |= playing & ~(_x[s] | _o[s]);
+        }
+    }
+
+    /** Return the games in which a side holds a complete line.
+     *
+     * @param own Squares held by the side.
+     * @return Games with a complete line.
+     * */
+    private static long lines(long[] own) {
+        return (own[0] & own[1] & own[2])
+                | (own[3] & own[4] & own[5])
+                | (own[6] & own[7] & own[8])
+                | (own[0] & own[3] & own[6])
+                | (own[1] & own[4] & own[7])
+                | (own[2] & own[5] & own[8])
+                | (own[0] & own[4] & own[8])
+                | (own[2] & own[4] & own[6]);
+    }
+
+    /** Return the next 64 random bits, using the SplitMix64 generator.
+     *
+     * @return Random long.
+     * */
+    private long next() {
+        long z = (_seed += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Squares held by X in each game. */
+    private final long[] _x = new long[SQUARES];
+    /** Squares held by O in each game. */
+    private final long[] _o = new long[SQUARES];
+    /** State of the random number generator. */
+    private long _seed;
+}
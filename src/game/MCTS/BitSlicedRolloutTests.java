@@ -0,0 +1,62 @@
+package game.MCTS;
+
+import game.Board;
+import game.Piece;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static game.Piece.*;
+
+/** Tests for the bit-sliced rollout engine.
+ *
+ * @author Richard Hu
+ * */
+public class BitSlicedRolloutTests {
+
+    @Test
+    public void finishedGameTest() {
+        Board b = new Board(new Piece[][] {
+                {O, O, O},
+                {X, X, E},
+                {X, E, E}
+        }, X);
+        RolloutCounts counts = new BitSlicedRollout(0).play(b, 2);
+
+        assertEquals(2 * BitSlicedRollout.LANES, counts.wins(O));
+        assertEquals(0, counts.wins(X));
+        assertEquals(0, counts.draws());
+    }
+
+    @Test
+    public void lastMoveTest() {
+        Board b = new Board(new Piece[][] {
+                {X, O, X},
+                {X, O, O},
+                {O, X, E}
+        }, X);
+        RolloutCounts counts = new BitSlicedRollout(0).play(b, 1);
+        assertEquals(BitSlicedRollout.LANES, counts.draws());
+
+        b = new Board(new Piece[][] {
+                {X, O, X},
+                {O, X, O},
+                {O, X, E}
+        }, X);
+        counts = new BitSlicedRollout(0).play(b, 1);
+        assertEquals(BitSlicedRollout.LANES, counts.wins(X));
+    }
+
+    /** Random games from the empty board end with X winning 737/1260,
+     * O winning 121/420 and a tie 8/63 of the time. */
+    @Test
+    public void emptyBoardTest() {
+        int words = 2000;
+        RolloutCounts counts = new BitSlicedRollout(0).play(new Board(), words);
+        double total = (double) words * BitSlicedRollout.LANES;
+
+        assertEquals(total, counts.total(), 0);
+        assertEquals(737.0 / 1260, counts.wins(X) / total, 0.01);
+        assertEquals(121.0 / 420, counts.wins(O) / total, 0.01);
+        assertEquals(8.0 / 63, counts.draws() / total, 0.01);
+    }
+}
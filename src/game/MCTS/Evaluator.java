@@ -0,0 +1,20 @@
+package game.MCTS;
+
+import game.Position;
+import java.util.List;
+
+/** Gives prior probabilities of moves, used by PUCT selection.
+ *
+ * @author Richard Hu
+ * */
+public interface Evaluator {
+
+    /** Return the prior probability of each move on a board.
+     *
+     * @param position Position to move on.
+     * @param moves Moves available on position.
+     * @return Prior probability of each move, in the order of moves.
+     * Probabilities add up to 1.
+     * */
+    double[] priors(Position position, List<String> moves);
+}
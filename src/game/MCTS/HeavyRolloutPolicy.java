@@ -0,0 +1,47 @@
+package game.MCTS;
+
+import game.Board;
+import game.Piece;
+import java.util.Random;
+
+import static game.Piece.*;
+
+/** Rollout policy that takes an immediate win if there is one, otherwise
+ * blocks the opponent's immediate win if there is one, and otherwise plays
+ * a random move. Wins and blocks are found with line masks, so no candidate
+ * move has to be played out to check it.
+ *
+ * @author Richard Hu
+ * */
+public class HeavyRolloutPolicy implements RolloutPolicy {
+
+    @Override
+    public int choose(Board board, Random rng) {
+        Piece turn = board.turn();
+        int empty = board.mask(E);
+        int candidates = completions(board.mask(turn), empty);
+        if (candidates == 0) {
+            candidates = completions(board.mask(turn.opposite()), empty);
+        }
+        if (candidates == 0) {
+            candidates = empty;
+        }
+        return RandomRolloutPolicy.randomSquare(candidates, rng);
+    }
+
+    /** Return the empty squares that would complete a line for a side.
+     *
+     * @param side Mask of squares held by the side.
+     * @param empty Mask of empty squares.
+     * @return Mask of squares completing a line.
+     * */
+    static int completions(int side, int empty) {
+        int result = 0;
+        for (int line : Board.LINES) {
+            if (Integer.bitCount(line & side) == 2) {
+                result |= line & empty;
+            }
+        }
+        return result;
+    }
+}
@@ -2,6 +2,14 @@ package game.MCTS;
 
 import game.Board;
 import game.Piece;
+import game.Position;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 import static game.Piece.*;
 
@@ -17,63 +25,294 @@ public class MonteCarloTreeSearch {
     /** True iff MCTS has not been set up. */
     public static boolean REQUIRES_SETUP = true;
 
+    /** Policy choosing the moves played during rollout. */
+    public static RolloutPolicy POLICY = new RandomRolloutPolicy();
+
+    /** True iff rollouts should also update the all-moves-as-first statistics
+     * used by Rapid Action Value Estimation (RAVE). Only single-game rollouts
+     * gather these statistics. */
+    public static boolean RAVE = false;
+
+    /** Number of words of BitSlicedRollout.LANES random games played by each
+     * rollout, or 0 to play a single game with POLICY instead. Batches are
+     * only played from Boards. */
+    public static int ROLLOUT_BATCH = 0;
+
+    /** Evaluator giving prior probabilities for PUCT selection, or null for
+     * UCT selection. */
+    public static Evaluator EVALUATOR = null;
+
+    /** True iff searches should end as soon as the best move is settled and
+     * carry the time left over into the next search. */
+    public static boolean ADAPTIVE_TIME = true;
+
+    /** Number of iterations between checks of whether the best move is
+     * settled. */
+    static final int SETTLED_CHECK_INTERVAL = 64;
+
+    /** Time left over from the previous search. */
+    private static long BANKED_MILLIS = 0;
+
     /** The computer's's search tree. */
     private static TreeNode ROOT;
 
+    /** Engine playing batched rollouts. */
+    private static final BitSlicedRollout BATCH_ENGINE = new BitSlicedRollout();
+
+    /** Thread running searches started by startSearch. */
+    private static final ExecutorService SEARCHER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "mcts-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /** Set up MCTS.
      *
      * @param firstBoard The initial board.
      * */
-    public static void setUp(Board firstBoard) {
-        Board state = new Board(firstBoard);
+    public static void setUp(Position firstBoard) {
+        Position state = firstBoard.copy();
         ROOT = new TreeNode(state, null, null);
         REQUIRES_SETUP = false;
+        BANKED_MILLIS = 0;
     }
 
-    /** Find the best move on the current board state.
+    /** Find the best move on the current board state. With ADAPTIVE_TIME,
+     * time left over from the previous search is added to maxTimeMillis.
      *
      * @param playerMove Move that led to the current state.
      * @param maxTimeMillis Maximum allowed run time.
      * @return Best move found.
      * */
     public static String findMove(String playerMove, long maxTimeMillis) {
+        return search(playerMove, new SearchHandle(maxTimeMillis, 0, null));
+    }
+
+    /** Find the best move on the current board state, running a given
+     * number of iterations unless time runs out first. With ADAPTIVE_TIME,
+     * time left over from the previous search is added to maxTimeMillis,
+     * but this search never ends early because its best move is settled and
+     * never leaves any time over for the next one.
+     *
+     * @param playerMove Move that led to the current state.
+     * @param maxTimeMillis Maximum allowed run time.
+     * @param maxIterations Maximum number of iterations.
+     * @return Best move found.
+     * */
+    public static String findMove(String playerMove, long maxTimeMillis, long maxIterations) {
+        return search(playerMove,
+                new SearchHandle(maxTimeMillis, maxIterations, 0, null));
+    }
+
+    /** Start finding the best move on the current board state without
+     * waiting for the result. Searches share the computer's search tree,
+     * so they run one at a time in the order they were started, and the
+     * next search or setUp should only happen after this one's future is
+     * done. The search's time starts when it begins running, not when it is
+     * started. With ADAPTIVE_TIME, time left over from the previous search is
+     * added to maxTimeMillis.
+     *
+     * @param playerMove Move that led to the current state.
+     * @param maxTimeMillis Maximum allowed run time.
+     * @param snapshotIntervalMillis Time between snapshots.
+     * @param listener Receiver of snapshots, or null for none. Called on
+     *                 the search thread, including once when the search ends.
+     * @return Handle on the search. Its future completes exceptionally if
+     * the game on the current board state is over.
+     * */
+    public static SearchHandle startSearch(String playerMove, long maxTimeMillis,
+                                           long snapshotIntervalMillis,
+                                           Consumer<SearchSnapshot> listener) {
+        SearchHandle handle = new SearchHandle(maxTimeMillis, snapshotIntervalMillis, listener);
+        SEARCHER.execute(() -> {
+            try {
+                handle.future().complete(search(playerMove, handle));
+            } catch (RuntimeException e) {
+                handle.future().completeExceptionally(e);
+            }
+        });
+        return handle;
+    }
+
+    /** Run the four phases of MCTS until a search ends, then move the root
+     * to the best child. The search's clock starts here, and at least one
+     * iteration runs even if it is stopped or has no time, so the root
+     * always has a visited child to move to. With ADAPTIVE_TIME, time left
+     * over from the previous search is added to the search's time, and the
+     * search also ends once the best move is settled, unless it has an
+     * iteration limit. The root then moves to its most visited child, which
+     * is the move settled() vouches for, and only then is the time left kept
+     * for the next search. A search that is stopped or runs out of time or
+     * iterations keeps no time.
+     *
+     * @param playerMove Move that led to the current state.
+     * @param handle Handle on the search.
+     * @return Best move found.
+     * @throws IllegalStateException if the game on the current board state
+     * is over. The root is then left unchanged.
+     * */
+    static String search(String playerMove, SearchHandle handle) {
         if (playerMove != null) {
-            for (TreeNode child : ROOT._children) {
-                if (playerMove.equals(child._achievingMove)) {
-                    ROOT = child;
-                    break;
-                }
+            TreeNode child = ROOT.child(playerMove);
+            if (child != null) {
+                ROOT = child;
             }
         }
 
         TreeNode node;
+        Position end;
         Piece winningSide;
-        long start = System.currentTimeMillis();
-        while (System.currentTimeMillis() - start < maxTimeMillis) {
+        long iterations = 0;
+        boolean settled = false;
+        double startVisits = ROOT._timesVisited;
+        long now = System.currentTimeMillis();
+        handle.begin(now, BANKED_MILLIS);
+        do {
             node = selection(ROOT);
             if (node.winner() == null) {
                 node = expansion(node);
             }
-            winningSide = rollout(node);
-            backPropagation(node, winningSide);
+            if (ROLLOUT_BATCH > 0 && node._state instanceof Board) {
+                backPropagation(node, batchRollout(node));
+            } else {
+                end = rollout(node);
+                winningSide = end.winner();
+                backPropagation(node, winningSide);
+                if (RAVE) {
+                    amafPropagation(node, end);
+                }
+            }
+            iterations += 1;
+            now = System.currentTimeMillis();
+            if (handle.snapshotDue(now)) {
+                handle.publish(snapshot(bestChild(ROOT), iterations, now - handle.start()));
+            }
+            if (ADAPTIVE_TIME && !handle.capped()
+                    && iterations % SETTLED_CHECK_INTERVAL == 0) {
+                long elapsed = Math.max(1, now - handle.start());
+                double visitRate = (ROOT._timesVisited - startVisits) / elapsed;
+                if (settled(ROOT, visitRate * handle.remaining(now))) {
+                    settled = true;
+                    break;
+                }
+            }
+        } while (!handle.expired(now, iterations));
+        BANKED_MILLIS = settled ? Math.max(0, handle.remaining(now)) : 0;
+
+        TreeNode bestChild = settled ? mostVisitedChild(ROOT) : bestChild(ROOT);
+        if (handle.listening()) {
+            handle.publish(snapshot(bestChild, iterations, now - handle.start()));
+        }
+        if (bestChild == null) {
+            throw new IllegalStateException("No move to make, the game is over");
         }
+        ROOT = bestChild;
+        return bestChild._achievingMove;
+    }
+
+    /** Return the time left over from the previous search.
+     *
+     * @return BANKED_MILLIS.
+     * */
+    static long bankedMillis() {
+        return BANKED_MILLIS;
+    }
 
+    /** Return the child of a node with the highest score.
+     *
+     * @param treeNode Node to choose from.
+     * @return Child with highest score, or null if none has been visited.
+     * */
+    static TreeNode bestChild(TreeNode treeNode) {
         double bestScore = Double.NEGATIVE_INFINITY;
         TreeNode bestChild = null;
-        String bestMove = "";
-        for (TreeNode child : ROOT._children) {
+        for (TreeNode child : treeNode._children) {
             if (child.score() > bestScore) {
                 bestScore = child.score();
                 bestChild = child;
-                bestMove = child._achievingMove;
             }
         }
-        ROOT = bestChild;
-        return bestMove;
+        return bestChild;
+    }
+
+    /** Whether the most visited child of a node can no longer be overtaken
+     * in visits. This is the case when the node's game has ended, when it
+     * has only one child, or when its most visited child leads the runner-up
+     * in visits by more than the visits the node is still expected to get.
+     * Even if the runner-up got every remaining visit, the leader would then
+     * still be the most visited child when the search ends. This says
+     * nothing about scores: a less visited child may still score higher,
+     * which is why a settled search plays the most visited child.
+     *
+     * @param treeNode Node to choose a move at.
+     * @param remainingVisits Visits the node is expected to get before the
+     *                        search ends.
+     * @return True iff the most visited child is settled.
+     * */
+    static boolean settled(TreeNode treeNode, double remainingVisits) {
+        if (treeNode.isLeaf()) {
+            return treeNode.winner() != null;
+        }
+        if (treeNode._children.size() == 1) {
+            return true;
+        }
+        TreeNode leader = mostVisitedChild(treeNode);
+        if (leader == null) {
+            return false;
+        }
+        double runnerUpVisits = 0;
+        for (TreeNode child : treeNode._children) {
+            if (child != leader) {
+                runnerUpVisits = Math.max(runnerUpVisits, child._timesVisited);
+            }
+        }
+        return leader._timesVisited - runnerUpVisits > remainingVisits;
+    }
+
+    /** Return the child of a node with the most visits.
+     *
+     * @param treeNode Node to choose from.
+     * @return Most visited child, or null if none has been visited.
+     * */
+    static TreeNode mostVisitedChild(TreeNode treeNode) {
+        double mostVisits = 0;
+        TreeNode mostVisited = null;
+        for (TreeNode child : treeNode._children) {
+            if (child._timesVisited > mostVisits) {
+                mostVisits = child._timesVisited;
+                mostVisited = child;
+            }
+        }
+        return mostVisited;
+    }
+
+    /** Record the current progress of a search.
+     *
+     * @param best Child of the root the search would currently choose.
+     * @param iterations Number of iterations done so far.
+     * @param elapsedMillis Time spent searching so far.
+     * @return Snapshot of the search tree.
+     * */
+    static SearchSnapshot snapshot(TreeNode best, long iterations, long elapsedMillis) {
+        Map<String, Double> visits = new LinkedHashMap<>();
+        Map<String, Double> wins = new LinkedHashMap<>();
+        for (TreeNode child : ROOT._children) {
+            visits.put(child._achievingMove, child._timesVisited);
+            wins.put(child._achievingMove, child._timesWon);
+        }
+        List<String> principalVariation = new ArrayList<>();
+        TreeNode node = best;
+        String bestMove = node == null ? "" : node._achievingMove;
+        while (node != null) {
+            principalVariation.add(node._achievingMove);
+            node = mostVisitedChild(node);
+        }
+        return new SearchSnapshot(bestMove, principalVariation, visits, wins,
+                iterations, elapsedMillis);
     }
 
     /** Selection phase of MCTS. At each node, choose the child with the
-     * highest UCT value until a leaf is reached
+     * highest UCT value (PUCT value with an EVALUATOR) until a leaf is reached
      *
      * @param treeNode Node to select children from.
      * @return Leaf node with highest UCT.
@@ -98,14 +337,25 @@ public class MonteCarloTreeSearch {
     }
 
     /** Rollout/Simulation phase of MCTS. Start with the game state of a node and
-     * play random moves until the game ends. Return the winner of the result of
-     * this random play.
+     * play moves chosen by POLICY until the game ends. Return the final board of
+     * this play.
+     *
+     * @param treeNode Node to rollout.
+     * @return State at the end of rollout.
+     * */
+    static Position rollout(TreeNode treeNode) {
+        return treeNode.playout(POLICY);
+    }
+
+    /** Batched Rollout/Simulation phase of MCTS. Start with the game state of a
+     * node and play ROLLOUT_BATCH words of random games at once until they all
+     * end. Return how many of these games each side won or tied.
      *
      * @param treeNode Node to rollout.
-     * @return Winning side of rollout.
+     * @return Outcomes of rollout.
      * */
-    static Piece rollout(TreeNode treeNode) {
-        return treeNode.play();
+    static RolloutCounts batchRollout(TreeNode treeNode) {
+        return BATCH_ENGINE.play((Board) treeNode._state, ROLLOUT_BATCH);
     }
 
     /** Back propagation phase of MCTS. Starting with a node, increment the number
@@ -131,4 +381,56 @@ public class MonteCarloTreeSearch {
             treeNode = treeNode._parent;
         }
     }
+
+    /** Back propagation phase of MCTS after a batched rollout. Same as back
+     * propagation of a single game, except that the win count goes up by the
+     * fraction of games won plus 0.5 per tie. The whole batch counts as one
+     * visit, so the exploration term of UCT shrinks at the same rate as with
+     * single-game rollouts.
+     *
+     * @param treeNode Node to back propagate.
+     * @param counts Outcomes of rollout.
+     * */
+    static void backPropagation(TreeNode treeNode, RolloutCounts counts) {
+        double wins = (counts.wins(SIDE) + 0.5 * counts.draws()) / counts.total();
+        while (treeNode != null) {
+            treeNode.incrementVisited();
+            if (treeNode._side != SIDE) {
+                treeNode.incrementWins(wins);
+            }
+            treeNode = treeNode._parent;
+        }
+    }
+
+    /** RAVE update following back propagation. Starting with a node, look at
+     * every move made after its state up to the end of rollout by the side to
+     * move at that node. Each child of the node reached by one of those moves
+     * is treated as if it had been visited on this rollout, updating its AMAF
+     * visit and win counts the same way back propagation does. Repeat for the
+     * node's parent until the root is reached.
+     *
+     * @param treeNode Node that was rolled out.
+     * @param end State at the end of rollout.
+     * */
+    static void amafPropagation(TreeNode treeNode, Position end) {
+        List<String> moves = end.moves();
+        Piece winningSide = end.winner();
+        while (treeNode != null) {
+            for (int i = treeNode._state.moves().size(); i < moves.size(); i += 2) {
+                TreeNode child = treeNode.child(moves.get(i));
+                if (child == null) {
+                    continue;
+                }
+                child.incrementAmafVisited();
+                if (child._side != SIDE) {
+                    if (winningSide == SIDE) {
+                        child.incrementAmafWins(1.0);
+                    } else if (winningSide == E) {
+                        child.incrementAmafWins(0.5);
+                    }
+                }
+            }
+            treeNode = treeNode._parent;
+        }
+    }
 }
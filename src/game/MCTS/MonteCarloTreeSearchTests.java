@@ -0,0 +1,325 @@
+package game.MCTS;
+
+import game.Board;
+import game.Piece;
+import game.UltimateBoard;
+import org.junit.Test;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static game.Piece.*;
+
+/** Tests for the phases of MonteCarloTreeSearch.
+ *
+ * @author Richard Hu
+ * */
+public class MonteCarloTreeSearchTests {
+
+    @Test
+    public void amafPropagationTest() {
+        Board b = new Board(new Piece[][] {
+                {X, O, X},
+                {O, E, E},
+                {E, E, E}
+        }, X);
+        MonteCarloTreeSearch.SIDE = X;
+        TreeNode root = new TreeNode(b, null, null);
+        root.expand();
+        TreeNode b2 = root.child("b2");
+
+        Board end = new Board(b);
+        end.put("b2");
+        end.put("a3");
+        end.put("c3");
+        assertEquals(X, end.winner());
+        MonteCarloTreeSearch.backPropagation(b2, end.winner());
+        MonteCarloTreeSearch.amafPropagation(b2, end);
+
+        assertEquals(1.0, b2.amafScore(), 0);
+        assertEquals(1.0, root.child("c3").amafScore(), 0);
+        assertEquals(Double.NEGATIVE_INFINITY, root.child("a3").amafScore(), 0);
+        assertEquals(Double.NEGATIVE_INFINITY, root.child("c2").amafScore(), 0);
+    }
+
+    @Test
+    public void startSearchTest() throws Exception {
+        Board b = new Board();
+        MonteCarloTreeSearch.SIDE = X;
+        MonteCarloTreeSearch.setUp(b);
+        List<SearchSnapshot> snapshots = new ArrayList<>();
+        SearchHandle handle = MonteCarloTreeSearch.startSearch(null, 10000, 10, snapshots::add);
+        Thread.sleep(100);
+        handle.stop();
+        String move = handle.future().get(1, TimeUnit.SECONDS);
+
+        assertTrue(b.emptyPlaces().contains(move));
+        assertTrue(snapshots.size() > 1);
+        SearchSnapshot last = snapshots.get(snapshots.size() - 1);
+        assertEquals(move, last.bestMove());
+        assertEquals(move, last.principalVariation().get(0));
+        assertEquals(9, last.rootVisits().size());
+        assertTrue(last.iterations() > snapshots.get(0).iterations());
+        assertTrue(last.elapsedMillis() < 10000);
+    }
+
+    @Test
+    public void batchDefenseTest() {
+        List<String> edges = Arrays.asList("a2", "b1", "b3", "c2");
+        MonteCarloTreeSearch.ROLLOUT_BATCH = 4;
+        try {
+            for (int i = 0; i < 5; i++) {
+                Board b = new Board();
+                b.put("a1");
+                b.put("b2");
+                b.put("c3");
+                MonteCarloTreeSearch.SIDE = O;
+                MonteCarloTreeSearch.setUp(b);
+                assertTrue(edges.contains(MonteCarloTreeSearch.findMove(null, 200)));
+            }
+        } finally {
+            MonteCarloTreeSearch.ROLLOUT_BATCH = 0;
+        }
+    }
+
+    @Test
+    public void noTimeSearchTest() throws Exception {
+        Board b = new Board();
+        MonteCarloTreeSearch.SIDE = X;
+        MonteCarloTreeSearch.setUp(b);
+        String move = MonteCarloTreeSearch.startSearch(null, 0, 10, null)
+                .future().get(1, TimeUnit.SECONDS);
+        assertTrue(b.emptyPlaces().contains(move));
+        b.put(move);
+        assertTrue(b.emptyPlaces().contains(MonteCarloTreeSearch.findMove(null, 100)));
+    }
+
+    @Test
+    public void queuedSearchTest() throws Exception {
+        MonteCarloTreeSearch.SIDE = X;
+        MonteCarloTreeSearch.setUp(new Board());
+        List<SearchSnapshot> snapshots = new ArrayList<>();
+        MonteCarloTreeSearch.startSearch(null, 500, 1000, null);
+        SearchHandle queued = MonteCarloTreeSearch.startSearch(null, 200, 1000, snapshots::add);
+        queued.future().get(2, TimeUnit.SECONDS);
+
+        SearchSnapshot last = snapshots.get(snapshots.size() - 1);
+        assertTrue(last.iterations() > 1);
+        assertTrue(last.elapsedMillis() < 500);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void gameOverSearchTest() {
+        Board b = new Board(new Piece[][] {
+                {X, X, X},
+                {O, O, E},
+                {E, E, E}
+        }, O);
+        MonteCarloTreeSearch.SIDE = O;
+        MonteCarloTreeSearch.setUp(b);
+        MonteCarloTreeSearch.findMove(null, 100);
+    }
+
+    @Test
+    public void rootParallelTest() throws Exception {
+        Board b = new Board(new Piece[][] {
+                {X, X, E},
+                {O, O, E},
+                {E, E, E}
+        }, X);
+        assertEquals("c1", RootParallelCoordinator.findMove(b, 2, 200));
+
+        long start = System.currentTimeMillis();
+        List<String> workers = Arrays.asList(RootParallelWorker.class.getName(),
+                "game.MCTS.MissingWorker");
+        assertEquals("c1", RootParallelCoordinator.findMove(b, workers, 200));
+        assertTrue(System.currentTimeMillis() - start < RootParallelCoordinator.GRACE_MILLIS);
+    }
+
+    @Test(expected = IOException.class)
+    public void noWorkerTest() throws Exception {
+        RootParallelCoordinator.findMove(new Board(),
+                Collections.singletonList("game.MCTS.MissingWorker"), 200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroWorkersTest() throws Exception {
+        RootParallelCoordinator.findMove(new Board(), 0, 200);
+    }
+
+    @Test
+    public void dyingWorkerTest() throws Exception {
+        Board b = new Board(new Piece[][] {
+                {X, X, E},
+                {O, O, E},
+                {E, E, E}
+        }, X);
+        List<String> workers = Arrays.asList(DyingWorker.class.getName(),
+                RootParallelWorker.class.getName());
+        assertEquals("c1", RootParallelCoordinator.findMove(b, workers, 200));
+    }
+
+    @Test
+    public void settledTest() {
+        Board b = new Board(new Piece[][] {
+                {X, O, X},
+                {X, O, O},
+                {O, X, E}
+        }, X);
+        MonteCarloTreeSearch.SIDE = X;
+        MonteCarloTreeSearch.setUp(b);
+        long start = System.currentTimeMillis();
+        assertEquals("c3", MonteCarloTreeSearch.findMove(null, 5000));
+        assertTrue(System.currentTimeMillis() - start < 1000);
+
+        TreeNode root = new TreeNode(new Board(), null, null);
+        root.expand();
+        for (int i = 0; i < 100; i++) {
+            MonteCarloTreeSearch.backPropagation(root.child("b2"), X);
+        }
+        for (int i = 0; i < 10; i++) {
+            MonteCarloTreeSearch.backPropagation(root.child("a1"), E);
+        }
+        assertTrue(MonteCarloTreeSearch.settled(root, 50));
+        assertFalse(MonteCarloTreeSearch.settled(root, 100));
+
+        root = new TreeNode(new Board(), null, null);
+        root.expand();
+        for (int i = 0; i < 100; i++) {
+            MonteCarloTreeSearch.backPropagation(root.child("b2"), E);
+        }
+        for (int i = 0; i < 5; i++) {
+            MonteCarloTreeSearch.backPropagation(root.child("c3"), X);
+        }
+        assertSame(root.child("c3"), MonteCarloTreeSearch.bestChild(root));
+        assertSame(root.child("b2"), MonteCarloTreeSearch.mostVisitedChild(root));
+        assertTrue(MonteCarloTreeSearch.settled(root, 90));
+    }
+
+    @Test
+    public void tableEvaluatorTest() {
+        assertEquals(TableEvaluator.DRAW, TableEvaluator.value(0, 0, true));
+        for (int xMask = 0; xMask <= Board.FULL; xMask++) {
+            for (int oMask = 0; oMask <= Board.FULL; oMask++) {
+                if ((xMask & oMask) == 0) {
+                    assertNotEquals(TableEvaluator.UNKNOWN,
+                            TableEvaluator.value(xMask, oMask, true));
+                    assertNotEquals(TableEvaluator.UNKNOWN,
+                            TableEvaluator.value(xMask, oMask, false));
+                }
+            }
+        }
+
+        Board b = new Board(new Piece[][] {
+                {X, E, E},
+                {O, O, E},
+                {X, E, E}
+        }, X);
+        List<String> moves = b.emptyPlaces();
+        double[] priors = new TableEvaluator().priors(b, moves);
+        double total = 0;
+        for (int i = 0; i < priors.length; i++) {
+            total += priors[i];
+            if (!moves.get(i).equals("c2")) {
+                assertTrue(priors[i] < priors[moves.indexOf("c2")]);
+            }
+        }
+        assertEquals(1, total, 1e-9);
+
+        MonteCarloTreeSearch.EVALUATOR = new TableEvaluator();
+        try {
+            MonteCarloTreeSearch.SIDE = X;
+            MonteCarloTreeSearch.setUp(b);
+            assertEquals("c2", MonteCarloTreeSearch.findMove(null, 100));
+        } finally {
+            MonteCarloTreeSearch.EVALUATOR = null;
+        }
+    }
+
+    @Test
+    public void ultimateTest() {
+        UltimateBoard b = new UltimateBoard();
+        for (String move : new String[] {"d4", "b2", "e4", "e2"}) {
+            b.put(move);
+        }
+        MonteCarloTreeSearch.SIDE = X;
+        MonteCarloTreeSearch.setUp(b);
+        MonteCarloTreeSearch.RAVE = true;
+        try {
+            String move = MonteCarloTreeSearch.findMove(null, 200);
+            assertTrue(b.emptyPlaces().contains(move));
+        } finally {
+            MonteCarloTreeSearch.RAVE = false;
+        }
+    }
+
+    @Test
+    public void stoppedSearchBanksNothingTest() throws Exception {
+        MonteCarloTreeSearch.SIDE = X;
+        MonteCarloTreeSearch.setUp(new Board());
+        SearchHandle handle = MonteCarloTreeSearch.startSearch(null, 5000, 1000, null);
+        Thread.sleep(50);
+        handle.stop();
+        handle.future().get(1, TimeUnit.SECONDS);
+        assertEquals(0, MonteCarloTreeSearch.bankedMillis());
+    }
+
+    @Test
+    public void cappedSearchBanksNothingTest() {
+        MonteCarloTreeSearch.SIDE = X;
+        MonteCarloTreeSearch.setUp(new Board());
+        MonteCarloTreeSearch.findMove(null, 3000, 200);
+        assertEquals(0, MonteCarloTreeSearch.bankedMillis());
+
+        Board b = new Board(new Piece[][] {
+                {X, O, X},
+                {X, O, O},
+                {O, X, E}
+        }, X);
+        MonteCarloTreeSearch.setUp(b);
+        assertEquals("c3", MonteCarloTreeSearch.findMove(null, 3000, 1000));
+        assertEquals(0, MonteCarloTreeSearch.bankedMillis());
+    }
+
+    @Test
+    public void cappedSearchRunsAllIterationsTest() {
+        Board b = new Board(new Piece[][] {
+                {X, O, X},
+                {X, O, O},
+                {O, X, E}
+        }, X);
+        MonteCarloTreeSearch.SIDE = X;
+        MonteCarloTreeSearch.setUp(b);
+        List<SearchSnapshot> snapshots = new ArrayList<>();
+        assertEquals("c3", MonteCarloTreeSearch.search(null,
+                new SearchHandle(3000, 1000, 1000, snapshots::add)));
+        assertEquals(1000, snapshots.get(snapshots.size() - 1).iterations());
+    }
+
+    /** Worker that connects to the coordinator and then dies before it is
+     * sent the position. */
+    public static class DyingWorker {
+
+        /** Connect, send the worker index and reset the connection.
+         *
+         * @param args Port of the coordinator on localhost, then the index
+         *             of this worker.
+         * */
+        public static void main(String[] args) throws IOException {
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                    Integer.parseInt(args[0]));
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(Integer.parseInt(args[1]));
+            out.flush();
+            socket.setSoLinger(true, 0);
+            socket.close();
+        }
+    }
+}
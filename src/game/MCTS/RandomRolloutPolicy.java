@@ -0,0 +1,31 @@
+package game.MCTS;
+
+import game.Board;
+import java.util.Random;
+
+import static game.Piece.*;
+
+/** Rollout policy that plays uniformly random moves.
+ *
+ * @author Richard Hu
+ * */
+public class RandomRolloutPolicy implements RolloutPolicy {
+
+    @Override
+    public int choose(Board board, Random rng) {
+        return randomSquare(board.mask(E), rng);
+    }
+
+    /** Return a random square out of a mask of squares.
+     *
+     * @param squares Mask of squares to choose from. Must not be 0.
+     * @param rng Random number generator to draw from.
+     * @return Index of a random set bit of squares.
+     * */
+    static int randomSquare(int squares, Random rng) {
+        for (int n = rng.nextInt(Integer.bitCount(squares)); n > 0; n--) {
+            squares &= squares - 1;
+        }
+        return Integer.numberOfTrailingZeros(squares);
+    }
+}
@@ -0,0 +1,68 @@
+package game.MCTS;
+
+import game.Piece;
+
+import static game.Piece.*;
+
+/** Outcomes of a batch of rollouts.
+ *
+ * @author Richard Hu
+ * */
+public class RolloutCounts {
+
+    /** Create counts of rollout outcomes.
+     *
+     * @param xWins Number of games won by X.
+     * @param oWins Number of games won by O.
+     * @param draws Number of tied games.
+     * */
+    RolloutCounts(long xWins, long oWins, long draws) {
+        _xWins = xWins;
+        _oWins = oWins;
+        _draws = draws;
+    }
+
+    /** Return the number of games won by a side.
+     *
+     * @param side Side to count wins for.
+     * @return Number of games won by side, or the number of ties if side is E.
+     * */
+    public long wins(Piece side) {
+        switch (side) {
+            case X:
+                return _xWins;
+            case O:
+                return _oWins;
+            default:
+                return _draws;
+        }
+    }
+
+    /** Return the number of tied games.
+     *
+     * @return _draws.
+     * */
+    public long draws() {
+        return _draws;
+    }
+
+    /** Return the number of games played.
+     *
+     * @return Sum of all outcomes.
+     * */
+    public long total() {
+        return _xWins + _oWins + _draws;
+    }
+
+    @Override
+    public String toString() {
+        return X + " " + _xWins + " : " + O + " " + _oWins + " : " + E + " " + _draws;
+    }
+
+    /** Number of games won by X. */
+    private final long _xWins;
+    /** Number of games won by O. */
+    private final long _oWins;
+    /** Number of tied games. */
+    private final long _draws;
+}
@@ -0,0 +1,19 @@
+package game.MCTS;
+
+import game.Board;
+import java.util.Random;
+
+/** Chooses the moves played during the rollout phase of MCTS.
+ *
+ * @author Richard Hu
+ * */
+public interface RolloutPolicy {
+
+    /** Choose the next move to play on a board whose game has not ended.
+     *
+     * @param board Board to move on.
+     * @param rng Random number generator to draw from.
+     * @return Square to play, given as row * 3 + col.
+     * */
+    int choose(Board board, Random rng);
+}
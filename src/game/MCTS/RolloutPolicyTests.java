@@ -0,0 +1,59 @@
+package game.MCTS;
+
+import game.Board;
+import game.Piece;
+import org.junit.Test;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static game.Piece.*;
+
+/** Tests for the rollout policies.
+ *
+ * @author Richard Hu
+ * */
+public class RolloutPolicyTests {
+
+    @Test
+    public void randomTest() {
+        Board b = new Board(new Piece[][] {
+                {X, O, X},
+                {E, O, X},
+                {O, X, E}
+        }, O);
+        RolloutPolicy policy = new RandomRolloutPolicy();
+        Random rng = new Random(0);
+        for (int i = 0; i < 100; i++) {
+            int square = policy.choose(b, rng);
+            assertTrue(square == 3 || square == 8);
+        }
+    }
+
+    @Test
+    public void winTest() {
+        Board b = new Board(new Piece[][] {
+                {X, X, E},
+                {O, O, E},
+                {E, E, E}
+        }, X);
+        RolloutPolicy policy = new HeavyRolloutPolicy();
+        Random rng = new Random(0);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(2, policy.choose(b, rng));
+        }
+    }
+
+    @Test
+    public void blockTest() {
+        Board b = new Board(new Piece[][] {
+                {X, E, E},
+                {O, O, E},
+                {X, E, E}
+        }, X);
+        RolloutPolicy policy = new HeavyRolloutPolicy();
+        Random rng = new Random(0);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(5, policy.choose(b, rng));
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package game.MCTS;
+
+import game.Board;
+import game.Piece;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** Root parallel search over several local processes. Each worker process
+ * runs its own MonteCarloTreeSearch on the same position and periodically
+ * reports the visit and win counts of the root's children over a localhost
+ * socket. The coordinator adds up the latest report of every worker and
+ * picks the move with the highest combined win count / times visited ratio.
+ * See RootParallelWorker for the messages exchanged.
+ *
+ * @author Richard Hu
+ * */
+public class RootParallelCoordinator {
+
+    /** Time between reports from each worker. */
+    static final long REPORT_INTERVAL_MILLIS = 100;
+
+    /** Extra time allowed for workers to start up and finish. */
+    static final long GRACE_MILLIS = 5000;
+
+    /** Time between checks for dead workers while waiting for workers to
+     * connect. */
+    static final long ACCEPT_POLL_MILLIS = 100;
+
+    /** Find the best move on a board using several worker processes.
+     * Workers run on the same class path as this process and use its RAVE,
+     * ROLLOUT_BATCH and ADAPTIVE_TIME settings. POLICY and EVALUATOR are
+     * not sent, so workers use their defaults. A worker that fails or does
+     * not finish in time contributes its last report, if it sent one. The
+     * search goes on with the workers that connected and were sent the
+     * position, as long as at least one was.
+     *
+     * @param board Board to find a move on.
+     * @param workers Number of worker processes, at least 1.
+     * @param maxTimeMillis Maximum search time of each worker, not counting
+     *                      process start up.
+     * @return Best move found, or "" if no worker reported any move.
+     * @throws IOException if no worker connected within GRACE_MILLIS.
+     * @throws IllegalArgumentException if workers is less than 1.
+     * */
+    public static String findMove(Board board, int workers, long maxTimeMillis)
+            throws IOException, InterruptedException {
+        return findMove(board,
+                Collections.nCopies(workers, RootParallelWorker.class.getName()), maxTimeMillis);
+    }
+
+    /** Find the best move on a board using worker processes running the
+     * given main classes.
+     *
+     * @param board Board to find a move on.
+     * @param workerClasses Main class of each worker process.
+     * @param maxTimeMillis Maximum search time of each worker, not counting
+     *                      process start up.
+     * @return Best move found, or "" if no worker reported any move.
+     * @throws IOException if no worker connected within GRACE_MILLIS.
+     * @throws IllegalArgumentException if there are no worker classes.
+     * */
+    static String findMove(Board board, List<String> workerClasses, long maxTimeMillis)
+            throws IOException, InterruptedException {
+        int workers = workerClasses.size();
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least 1 worker is needed, got " + workers);
+        }
+        AtomicReferenceArray<Map<String, double[]>> reports = new AtomicReferenceArray<>(workers);
+        List<Process> processes = new ArrayList<>();
+        List<Socket> sockets = new ArrayList<>();
+        ExecutorService readers = Executors.newFixedThreadPool(workers);
+        try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout((int) ACCEPT_POLL_MILLIS);
+            for (int i = 0; i < workers; i++) {
+                processes.add(startWorker(workerClasses.get(i), server.getLocalPort(), i));
+            }
+            boolean[] connected = new boolean[workers];
+            int connections = 0;
+            long acceptDeadline = System.currentTimeMillis() + GRACE_MILLIS;
+            while (waiting(processes, connected)
+                    && System.currentTimeMillis() < acceptDeadline) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    continue;
+                }
+                sockets.add(socket);
+                int worker;
+                try {
+                    socket.setSoTimeout((int) GRACE_MILLIS);
+                    worker = new DataInputStream(socket.getInputStream()).readInt();
+                    socket.setSoTimeout(0);
+                } catch (IOException e) {
+                    socket.close();
+                    continue;
+                }
+                if (worker < 0 || worker >= workers || connected[worker]) {
+                    socket.close();
+                    continue;
+                }
+                connected[worker] = true;
+                try {
+                    sendPosition(socket, board, maxTimeMillis);
+                } catch (IOException e) {
+                    socket.close();
+                    continue;
+                }
+                connections += 1;
+                readers.execute(() -> readReports(socket, reports, worker));
+            }
+            if (connections == 0) {
+                throw new IOException("No worker connected within " + GRACE_MILLIS + "ms");
+            }
+            readers.shutdown();
+            readers.awaitTermination(maxTimeMillis + GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        } finally {
+            readers.shutdownNow();
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+        return bestMove(reports);
+    }
+
+    /** Whether some worker may still connect.
+     *
+     * @param processes Worker processes.
+     * @param connected Whether each worker has connected.
+     * @return True iff a worker that has not connected is still running.
+     * */
+    static boolean waiting(List<Process> processes, boolean[] connected) {
+        for (int i = 0; i < connected.length; i++) {
+            if (!connected[i] && processes.get(i).isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Start a worker process connecting to a port.
+     *
+     * @param workerClass Main class of the worker.
+     * @param port Port of this coordinator.
+     * @param index Index of the worker.
+     * @return The worker process.
+     * */
+    static Process startWorker(String workerClass, int port, int index) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin"
+                + File.separator + "java";
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                workerClass, Integer.toString(port), Integer.toString(index))
+                .inheritIO()
+                .start();
+    }
+
+    /** Send the position and search settings to a worker.
+     *
+     * @param socket Connection to the worker.
+     * @param board Board to search.
+     * @param maxTimeMillis Maximum search time.
+     * */
+    static void sendPosition(Socket socket, Board board, long maxTimeMillis)
+            throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(socket.getOutputStream()));
+        Piece[][] config = board.rawBoard();
+        out.writeByte(config.length);
+        for (Piece[] row : config) {
+            for (Piece piece : row) {
+                out.writeByte(piece.ordinal());
+            }
+        }
+        out.writeByte(board.turn().ordinal());
+        out.writeLong(maxTimeMillis);
+        out.writeLong(REPORT_INTERVAL_MILLIS);
+        out.writeBoolean(MonteCarloTreeSearch.RAVE);
+        out.writeInt(MonteCarloTreeSearch.ROLLOUT_BATCH);
+        out.writeBoolean(MonteCarloTreeSearch.ADAPTIVE_TIME);
+        out.flush();
+    }
+
+    /** Keep the latest report of a worker until it ends its search or its
+     * connection is lost.
+     *
+     * @param socket Connection to the worker.
+     * @param reports Latest report of each worker, keyed by move.
+     * @param worker Index of the worker.
+     * */
+    static void readReports(Socket socket, AtomicReferenceArray<Map<String, double[]>> reports,
+                            int worker) {
+        try {
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream()));
+            int children = in.readInt();
+            while (children != RootParallelWorker.END) {
+                Map<String, double[]> report = new LinkedHashMap<>();
+                for (int i = 0; i < children; i++) {
+                    String move = in.readUTF();
+                    double visits = in.readDouble();
+                    double wins = in.readDouble();
+                    report.put(move, new double[] {visits, wins});
+                }
+                reports.set(worker, report);
+                children = in.readInt();
+            }
+        } catch (IOException e) {
+            /* The connection was lost, so the last report received stands. */
+        }
+    }
+
+    /** Add up the reports of all workers and return the move with the
+     * highest combined score.
+     *
+     * @param reports Latest report of each worker, keyed by move.
+     * @return Best move, or "" if there are no reports.
+     * */
+    static String bestMove(AtomicReferenceArray<Map<String, double[]>> reports) {
+        Map<String, double[]> totals = new HashMap<>();
+        for (int i = 0; i < reports.length(); i++) {
+            Map<String, double[]> report = reports.get(i);
+            if (report == null) {
+                continue;
+            }
+            for (Map.Entry<String, double[]> entry : report.entrySet()) {
+                double[] total = totals.computeIfAbsent(entry.getKey(), k -> new double[2]);
+                total[0] += entry.getValue()[0];
+                total[1] += entry.getValue()[1];
+            }
+        }
+        double bestScore = Double.NEGATIVE_INFINITY;
+        String bestMove = "";
+        for (Map.Entry<String, double[]> entry : totals.entrySet()) {
+            double[] total = entry.getValue();
+            if (total[0] > 0 && total[1] / total[0] > bestScore) {
+                bestScore = total[1] / total[0];
+                bestMove = entry.getKey();
+            }
+        }
+        return bestMove;
+    }
+}
@@ -0,0 +1,99 @@
+package game.MCTS;
+
+import game.Board;
+import game.Piece;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/** Worker process of a root parallel search. Connects to a
+ * RootParallelCoordinator on localhost, searches the position it is sent
+ * and reports the statistics of the root's children while searching.
+ *
+ * On connecting, the worker sends its index as an int. Messages from the
+ * coordinator are then, in order: the board size n as a byte,
+ * the n * n pieces of the board by row as Piece ordinals, the side to move
+ * as a Piece ordinal, the search time and the report interval in
+ * milliseconds as longs, RAVE as a boolean, ROLLOUT_BATCH as an int and
+ * ADAPTIVE_TIME as a boolean. POLICY and EVALUATOR keep their defaults.
+ *
+ * Each report to the coordinator is the number of root children as an int
+ * followed by, for each child, its move in modified UTF-8 and its visit and
+ * win counts as doubles. Counts are totals since the search started. A
+ * count of -1 ends the search.
+ *
+ * @author Richard Hu
+ * */
+public class RootParallelWorker {
+
+    /** Marker sent in place of a report once the search has ended. */
+    static final int END = -1;
+
+    /** Run a worker.
+     *
+     * @param args Port of the coordinator on localhost, then the index of
+     *             this worker.
+     * */
+    public static void main(String[] args)
+            throws IOException, InterruptedException, ExecutionException {
+        int port = Integer.parseInt(args[0]);
+        int index = Integer.parseInt(args[1]);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(index);
+            out.flush();
+
+            int size = in.readByte();
+            Piece[][] config = new Piece[size][size];
+            for (int r = 0; r < size; r++) {
+                for (int c = 0; c < size; c++) {
+                    config[r][c] = Piece.values()[in.readByte()];
+                }
+            }
+            Piece turn = Piece.values()[in.readByte()];
+            long maxTimeMillis = in.readLong();
+            long reportIntervalMillis = in.readLong();
+            MonteCarloTreeSearch.RAVE = in.readBoolean();
+            MonteCarloTreeSearch.ROLLOUT_BATCH = in.readInt();
+            MonteCarloTreeSearch.ADAPTIVE_TIME = in.readBoolean();
+
+            MonteCarloTreeSearch.SIDE = turn;
+            MonteCarloTreeSearch.setUp(new Board(config, turn));
+            SearchHandle handle = MonteCarloTreeSearch.startSearch(null, maxTimeMillis,
+                    reportIntervalMillis, snapshot -> report(out, snapshot));
+            handle.future().get();
+            out.writeInt(END);
+            out.flush();
+        }
+    }
+
+    /** Send the statistics of the root's children to the coordinator.
+     *
+     * @param out Stream to the coordinator.
+     * @param snapshot Snapshot of the search.
+     * */
+    static void report(DataOutputStream out, SearchSnapshot snapshot) {
+        try {
+            Map<String, Double> wins = snapshot.rootWins();
+            out.writeInt(snapshot.rootVisits().size());
+            for (Map.Entry<String, Double> entry : snapshot.rootVisits().entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeDouble(entry.getValue());
+                out.writeDouble(wins.get(entry.getKey()));
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
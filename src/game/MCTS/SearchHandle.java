@@ -0,0 +1,158 @@
+package game.MCTS;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/** Handle on a running search, used to follow its progress, stop it early
+ * or give it more time.
+ *
+ * @author Richard Hu
+ * */
+public class SearchHandle {
+
+    /** Create a handle for a search. Its clock starts when the search
+     * begins, not when the handle is created.
+     *
+     * @param maxTimeMillis Maximum allowed run time.
+     * @param snapshotIntervalMillis Time between snapshots.
+     * @param listener Receiver of snapshots, or null for none.
+     * */
+    SearchHandle(long maxTimeMillis, long snapshotIntervalMillis,
+                 Consumer<SearchSnapshot> listener) {
+        this(maxTimeMillis, Long.MAX_VALUE, snapshotIntervalMillis, listener);
+    }
+
+    /** Create a handle for a search that also ends after a number of
+     * iterations. Its clock starts when the search begins, not when the
+     * handle is created.
+     *
+     * @param maxTimeMillis Maximum allowed run time.
+     * @param maxIterations Maximum number of iterations.
+     * @param snapshotIntervalMillis Time between snapshots.
+     * @param listener Receiver of snapshots, or null for none.
+     * */
+    SearchHandle(long maxTimeMillis, long maxIterations, long snapshotIntervalMillis,
+                 Consumer<SearchSnapshot> listener) {
+        _budget = maxTimeMillis;
+        _maxIterations = maxIterations;
+        _snapshotInterval = snapshotIntervalMillis;
+        _listener = listener;
+        _future = new CompletableFuture<>();
+    }
+
+    /** Return the future completed with the move found by the search.
+     *
+     * @return _future.
+     * */
+    public CompletableFuture<String> future() {
+        return _future;
+    }
+
+    /** Ask the search to stop as soon as possible. The future is then
+     * completed with the best move found so far. */
+    public void stop() {
+        _stopped = true;
+    }
+
+    /** Give the search more time. Has no effect if the search has ended.
+     *
+     * @param millis Time to add to the maximum allowed run time.
+     * */
+    public synchronized void extend(long millis) {
+        _budget += millis;
+    }
+
+    /** Start the clock of the search, giving it some extra time.
+     *
+     * @param now Time when the search begins.
+     * @param bonusMillis Time to add to the maximum allowed run time.
+     * */
+    void begin(long now, long bonusMillis) {
+        extend(bonusMillis);
+        _start = now;
+        _nextSnapshot = now + _snapshotInterval;
+    }
+
+    /** Return the time when the search started.
+     *
+     * @return _start.
+     * */
+    long start() {
+        return _start;
+    }
+
+    /** Whether the search should end.
+     *
+     * @param now Current time.
+     * @param iterations Number of iterations done so far.
+     * @return True iff the search was stopped or ran out of time or
+     * iterations.
+     * */
+    boolean expired(long now, long iterations) {
+        return _stopped || now >= _start + _budget || iterations >= _maxIterations;
+    }
+
+    /** Whether the search ends after a number of iterations.
+     *
+     * @return True iff the search has an iteration limit.
+     * */
+    boolean capped() {
+        return _maxIterations != Long.MAX_VALUE;
+    }
+
+    /** Return the time left before the search must end.
+     *
+     * @param now Current time.
+     * @return Time until the deadline, negative if it has passed.
+     * */
+    long remaining(long now) {
+        return _start + _budget - now;
+    }
+
+    /** Whether a snapshot should be published. Schedules the next snapshot
+     * when one is due.
+     *
+     * @param now Current time.
+     * @return True iff there is a listener and a snapshot is due.
+     * */
+    boolean snapshotDue(long now) {
+        if (_listener == null || now < _nextSnapshot) {
+            return false;
+        }
+        _nextSnapshot = now + _snapshotInterval;
+        return true;
+    }
+
+    /** Whether anyone receives snapshots of this search.
+     *
+     * @return True iff there is a listener.
+     * */
+    boolean listening() {
+        return _listener != null;
+    }
+
+    /** Send a snapshot to the listener.
+     *
+     * @param snapshot Snapshot to send.
+     * */
+    void publish(SearchSnapshot snapshot) {
+        _listener.accept(snapshot);
+    }
+
+    /** Time when the search started. */
+    private long _start;
+    /** Maximum allowed run time. */
+    private volatile long _budget;
+    /** Number of iterations after which the search must end. */
+    private final long _maxIterations;
+    /** True iff the search was asked to stop. */
+    private volatile boolean _stopped;
+    /** Time between snapshots. */
+    private final long _snapshotInterval;
+    /** Time when the next snapshot is due. */
+    private long _nextSnapshot;
+    /** Receiver of snapshots. */
+    private final Consumer<SearchSnapshot> _listener;
+    /** Future completed with the move found. */
+    private final CompletableFuture<String> _future;
+}
@@ -0,0 +1,101 @@
+package game.MCTS;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Progress of a search at one point in time.
+ *
+ * @author Richard Hu
+ * */
+public class SearchSnapshot {
+
+    /** Create a snapshot.
+     *
+     * @param bestMove Move the search would currently choose.
+     * @param principalVariation Expected line of play starting with bestMove.
+     * @param rootVisits Visit count of each root child, keyed by move.
+     * @param rootWins Win count of each root child, keyed by move.
+     * @param iterations Number of iterations done so far.
+     * @param elapsedMillis Time spent searching so far.
+     * */
+    SearchSnapshot(String bestMove, List<String> principalVariation,
+                   Map<String, Double> rootVisits, Map<String, Double> rootWins,
+                   long iterations, long elapsedMillis) {
+        _bestMove = bestMove;
+        _principalVariation = Collections.unmodifiableList(principalVariation);
+        _rootVisits = Collections.unmodifiableMap(new LinkedHashMap<>(rootVisits));
+        _rootWins = Collections.unmodifiableMap(new LinkedHashMap<>(rootWins));
+        _iterations = iterations;
+        _elapsedMillis = elapsedMillis;
+    }
+
+    /** Return the move the search would currently choose.
+     *
+     * @return _bestMove, or "" if the root has no children yet.
+     * */
+    public String bestMove() {
+        return _bestMove;
+    }
+
+    /** Return the expected line of play. The first move is bestMove() and
+     * each following move is the most visited reply.
+     *
+     * @return _principalVariation.
+     * */
+    public List<String> principalVariation() {
+        return _principalVariation;
+    }
+
+    /** Return the visit count of each root child.
+     *
+     * @return _rootVisits.
+     * */
+    public Map<String, Double> rootVisits() {
+        return _rootVisits;
+    }
+
+    /** Return the win count of each root child.
+     *
+     * @return _rootWins.
+     * */
+    public Map<String, Double> rootWins() {
+        return _rootWins;
+    }
+
+    /** Return the number of iterations done so far.
+     *
+     * @return _iterations.
+     * */
+    public long iterations() {
+        return _iterations;
+    }
+
+    /** Return the time spent searching so far.
+     *
+     * @return _elapsedMillis.
+     * */
+    public long elapsedMillis() {
+        return _elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return _bestMove + " : " + _principalVariation + " : " + _iterations
+                + " iterations in " + _elapsedMillis + "ms";
+    }
+
+    /** Move the search would currently choose. */
+    private final String _bestMove;
+    /** Expected line of play. */
+    private final List<String> _principalVariation;
+    /** Visit count of each root child. */
+    private final Map<String, Double> _rootVisits;
+    /** Win count of each root child. */
+    private final Map<String, Double> _rootWins;
+    /** Number of iterations done so far. */
+    private final long _iterations;
+    /** Time spent searching so far. */
+    private final long _elapsedMillis;
+}
@@ -0,0 +1,171 @@
+package game.MCTS;
+
+import game.Board;
+import game.Piece;
+import game.Position;
+import java.util.Arrays;
+import java.util.List;
+
+import static game.Piece.*;
+
+/** Evaluator backed by a table of the game-theoretic value of every board.
+ * A board is encoded as the base 3 number whose digit s is the ordinal of
+ * the piece on square s, plus 3^9 when O is to move. Each entry holds a
+ * loss, draw or win for the side to move in 2 bits, so the whole table
+ * takes under 10 KB. Every encoding is filled in when the class is loaded,
+ * after which the table is only read, so it can be shared by any number of
+ * searches.
+ *
+ * A move's prior is proportional to the weight of the value the move
+ * leads to, so good moves are favored without ruling out the others.
+ * On other positions than Boards, all moves get the same prior.
+ *
+ * @author Richard Hu
+ * */
+public class TableEvaluator implements Evaluator {
+
+    /** Value of a lost board for the side to move. */
+    static final int LOSS = 0;
+
+    /** Value of a drawn board. */
+    static final int DRAW = 1;
+
+    /** Value of a won board for the side to move. */
+    static final int WIN = 2;
+
+    /** Table entry of a board whose value has not been computed. No entry
+     * holds it once the class is loaded. */
+    static final int UNKNOWN = 3;
+
+    /** Weight of a move leading to a loss, a draw or a win for the side
+     * making it. */
+    static final double[] WEIGHTS = {1, 3, 9};
+
+    /** Number of squares on the board. */
+    static final int SQUARES = 9;
+
+    /** Powers of 3 for each square. */
+    private static final int[] POW3 = new int[SQUARES + 1];
+
+    /** Values of all boards, 4 to a byte. */
+    private static final byte[] TABLE;
+
+    static {
+        POW3[0] = 1;
+        for (int s = 1; s <= SQUARES; s++) {
+            POW3[s] = 3 * POW3[s - 1];
+        }
+        TABLE = new byte[(2 * POW3[SQUARES] + 3) / 4];
+        Arrays.fill(TABLE, (byte) -1);
+        for (int board = POW3[SQUARES] - 1; board >= 0; board--) {
+            int xMask = 0;
+            int oMask = 0;
+            for (int s = 0; s < SQUARES; s++) {
+                int piece = board / POW3[s] % 3;
+                if (piece == X.ordinal()) {
+                    xMask |= 1 << s;
+                } else if (piece == O.ordinal()) {
+                    oMask |= 1 << s;
+                }
+            }
+            store(board, solve(xMask, oMask, true));
+            store(board + POW3[SQUARES], solve(xMask, oMask, false));
+        }
+    }
+
+    @Override
+    public double[] priors(Position position, List<String> moves) {
+        double[] priors = new double[moves.size()];
+        if (!(position instanceof Board)) {
+            Arrays.fill(priors, 1.0 / priors.length);
+            return priors;
+        }
+        Board board = (Board) position;
+        int xMask = board.mask(X);
+        int oMask = board.mask(O);
+        boolean xToMove = board.turn() == X;
+        double total = 0;
+        for (int i = 0; i < priors.length; i++) {
+            int bit = 1 << Board.square(moves.get(i));
+            int value = xToMove ? value(xMask | bit, oMask, false) : value(xMask, oMask | bit, true);
+            priors[i] = WEIGHTS[WIN - value];
+            total += priors[i];
+        }
+        for (int i = 0; i < priors.length; i++) {
+            priors[i] /= total;
+        }
+        return priors;
+    }
+
+    /** Return the value of a board for the side to move.
+     *
+     * @param xMask Squares held by X.
+     * @param oMask Squares held by O.
+     * @param xToMove True iff X is to move.
+     * @return LOSS, DRAW or WIN.
+     * */
+    static int value(int xMask, int oMask, boolean xToMove) {
+        int index = xToMove ? 0 : POW3[SQUARES];
+        for (int s = 0; s < SQUARES; s++) {
+            if ((xMask >>> s & 1) != 0) {
+                index += X.ordinal() * POW3[s];
+            } else if ((oMask >>> s & 1) != 0) {
+                index += O.ordinal() * POW3[s];
+            }
+        }
+        return TABLE[index >>> 2] >>> 2 * (index & 3) & 3;
+    }
+
+    /** Set the table entry of a board.
+     *
+     * @param index Encoding of the board.
+     * @param value LOSS, DRAW or WIN.
+     * */
+    private static void store(int index, int value) {
+        int shift = 2 * (index & 3);
+        TABLE[index >>> 2] = (byte) (TABLE[index >>> 2] & ~(3 << shift) | value << shift);
+    }
+
+    /** Compute the value of a board for the side to move by trying every
+     * move. Every board one move further must already be in the table, which
+     * holds since adding a piece to a board increases its encoding.
+     *
+     * @param xMask Squares held by X.
+     * @param oMask Squares held by O.
+     * @param xToMove True iff X is to move.
+     * @return LOSS, DRAW or WIN.
+     * */
+    private static int solve(int xMask, int oMask, boolean xToMove) {
+        if (hasLine(xToMove ? oMask : xMask)) {
+            return LOSS;
+        }
+        if (hasLine(xToMove ? xMask : oMask)) {
+            return WIN;
+        }
+        int empty = ~(xMask | oMask) & Board.FULL;
+        if (empty == 0) {
+            return DRAW;
+        }
+        int best = LOSS;
+        for (int rest = empty; rest != 0; rest &= rest - 1) {
+            int bit = rest & -rest;
+            int value = xToMove ? value(xMask | bit, oMask, false) : value(xMask, oMask | bit, true);
+            best = Math.max(best, WIN - value);
+        }
+        return best;
+    }
+
+    /** Whether a side holds a complete line.
+     *
+     * @param side Squares held by the side.
+     * @return True iff side holds a line.
+     * */
+    private static boolean hasLine(int side) {
+        for (int line : Board.LINES) {
+            if ((side & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -2,6 +2,7 @@ package game.MCTS;
 
 import game.Board;
 import game.Piece;
+import game.Position;
 import java.util.*;
 
 /** Tree data structure for MCTS.
@@ -13,13 +14,21 @@ public class TreeNode {
     /** Square root of 2. */
     public static final double ROOT2 = Math.sqrt(2);
 
+    /** Number of visits at which a node's own statistics and its RAVE
+     * statistics are weighted equally in its UCT value. */
+    public static final double RAVE_EQUIVALENCE = 500;
+
+    /** Weight of the exploration term of the PUCT value. */
+    public static final double PUCT_CONSTANT = 1.5;
+
     /** Set this node's state to the board.
      *
-     * @param board State of this node.
+     * @param board State of this node. Any Position can be searched, but
+     *              rollout policies only apply to Boards.
      * @param parent Parent of this node.
      * @param move Move that resulted in this node's state.
      * */
-    public TreeNode(Board board, TreeNode parent, String move) {
+    public TreeNode(Position board, TreeNode parent, String move) {
         _state = board;
         _side = _state.turn();
         _parent = parent;
@@ -27,32 +36,63 @@ public class TreeNode {
         _achievingMove = move;
         _timesVisited = 0;
         _timesWon = 0;
+        _amafVisited = 0;
+        _amafWon = 0;
+        _prior = 0;
+        _hasPriors = false;
         _fullyExpanded = false;
         setUpRNG();
     }
 
     /** Expand this node by adding to its children all nodes with game states
-     * one move forward of this node's state. */
+     * one move forward of this node's state. If the search has an evaluator,
+     * each child is given the prior probability of its achieving move. */
     void expand() {
         if (!_fullyExpanded) {
-            Board temp;
-            for (String move : _state.emptyPlaces()) {
-                temp = new Board(_state);
-                temp.put(move);
-                _children.add(new TreeNode(temp, this, move));
+            Position temp;
+            List<String> moves = _state.emptyPlaces();
+            Evaluator evaluator = MonteCarloTreeSearch.EVALUATOR;
+            double[] priors = evaluator == null ? null : evaluator.priors(_state, moves);
+            for (int i = 0; i < moves.size(); i++) {
+                temp = _state.copy();
+                temp.put(moves.get(i));
+                TreeNode child = new TreeNode(temp, this, moves.get(i));
+                if (priors != null) {
+                    child._prior = priors[i];
+                }
+                _children.add(child);
             }
+            _hasPriors = priors != null;
             _fullyExpanded = true;
         }
     }
 
-    /** Return the child of this node with highest UCT value.
+    /** Return the child of this node with highest UCT value, or with highest
+     * PUCT value if the children have prior probabilities.
      *
-     * @return child with highest UCT.
+     * @return child with highest UCT or PUCT.
      * */
     TreeNode highestUCTChild() {
+        if (_hasPriors) {
+            return Collections.max(_children, Comparator.comparing(TreeNode::puct));
+        }
         return Collections.max(_children, Comparator.comparing(TreeNode::uct));
     }
 
+    /** Return the child reached by playing a move.
+     *
+     * @param move Move to look for.
+     * @return Child whose achieving move is move, or null if there is none.
+     * */
+    TreeNode child(String move) {
+        for (TreeNode child : _children) {
+            if (move.equals(child._achievingMove)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
     /** Return a random child.
      *
      * @return Random element from _children.
@@ -90,6 +130,34 @@ public class TreeNode {
         return _timesWon / _timesVisited;
     }
 
+    /** All-moves-as-first (AMAF) score of this node, determined by the number
+     * of times won divided by the number of times visited over all rollouts in
+     * which this node's achieving move was played by the same side at any
+     * later point.
+     *
+     * @return This node's AMAF average value.
+     * */
+    double amafScore() {
+        if (_amafVisited == 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return _amafWon / _amafVisited;
+    }
+
+    /** Exploitation term used in selection. Without AMAF statistics this is
+     * the score. With them, it is a blend of the score and the AMAF score
+     * whose weight on the AMAF score decays as this node gets visited.
+     *
+     * @return This node's blended value.
+     * */
+    double value() {
+        if (_amafVisited == 0) {
+            return score();
+        }
+        double beta = Math.sqrt(RAVE_EQUIVALENCE / (3 * _timesVisited + RAVE_EQUIVALENCE));
+        return (1 - beta) * score() + beta * amafScore();
+    }
+
     /** Upper Confidence bounds applied to Trees (UCT) value of this node.
      * Value increases when this node is less visited or when this node tends
      * to result in more victories.
@@ -100,23 +168,56 @@ public class TreeNode {
         if (_timesVisited == 0) {
             return Double.POSITIVE_INFINITY;
         }
-        return score() + ROOT2 * Math.sqrt(Math.log(_parent._timesVisited) / _timesVisited);
+        return value() + ROOT2 * Math.sqrt(Math.log(_parent._timesVisited) / _timesVisited);
+    }
+
+    /** Predictor + UCT (PUCT) value of this node. Like UCT, but exploration is
+     * weighted by the prior probability of this node's achieving move, so
+     * likely moves are tried first and unlikely ones rarely. An unvisited
+     * node has no exploitation term.
+     *
+     * @return PUCT value of this node.
+     * */
+    double puct() {
+        double exploitation = _timesVisited == 0 ? 0 : value();
+        return exploitation
+                + PUCT_CONSTANT * _prior * Math.sqrt(_parent._timesVisited) / (1 + _timesVisited);
     }
 
     /** Return the winner of the game starting at this node's game state and
-     * playing random moves until the game ends.
+     * playing moves chosen by the search's rollout policy until the game ends.
      *
      * @return Winning side.
      * */
     Piece play() {
-        Piece winner = _state.winner();
-        Board temp = new Board(_state);
-        while (winner == null) {
-            int move = _rng.nextInt(temp.emptyPlaces().size());
-            temp.put(temp.emptyPlaces().get(move));
-            winner = temp.winner();
+        return playout(MonteCarloTreeSearch.POLICY).winner();
+    }
+
+    /** Return the final state of the game starting at this node's game state
+     * and playing moves chosen by a rollout policy until the game ends. On
+     * other positions than Boards, moves are chosen uniformly at random.
+     *
+     * @param policy Policy choosing each move.
+     * @return State at the end of the game.
+     * */
+    Position playout(RolloutPolicy policy) {
+        Position temp = _state.copy();
+        if (temp instanceof Board) {
+            Board board = (Board) temp;
+            Piece winner = board.winner();
+            while (winner == null) {
+                board.put(policy.choose(board, _rng));
+                winner = board.winner();
+            }
+        } else {
+            Piece winner = temp.winner();
+            while (winner == null) {
+                List<String> moves = temp.emptyPlaces();
+                temp.put(moves.get(_rng.nextInt(moves.size())));
+                winner = temp.winner();
+            }
         }
-        return winner;
+        return temp;
     }
 
     /** Increment the number of times this node has been visited. */
@@ -130,6 +231,18 @@ public class TreeNode {
         _timesWon += amt;
     }
 
+    /** Increment the number of times this node's achieving move has been
+     * played in a rollout. */
+    void incrementAmafVisited() {
+        _amafVisited += 1.0;
+    }
+
+    /** Increment the number of times that a win has been achieved in
+     * rollouts playing this node's achieving move. */
+    void incrementAmafWins(double amt) {
+        _amafWon += amt;
+    }
+
     /** Set up randomness. */
     void setUpRNG() {
         _rng = new Random();
@@ -141,7 +254,7 @@ public class TreeNode {
     }
 
     /** State of current board. */
-    Board _state;
+    Position _state;
     /** This node's side. */
     Piece _side;
     /** This node's parent. */
@@ -154,6 +267,14 @@ public class TreeNode {
     double _timesVisited;
     /** The number of times that a simulation passing through this node has won. */
     double _timesWon;
+    /** The number of rollouts in which this node's achieving move was played. */
+    double _amafVisited;
+    /** The number of times that a rollout playing this node's achieving move has won. */
+    double _amafWon;
+    /** Prior probability of the move that resulted in this node's state. */
+    double _prior;
+    /** True iff this node's children have prior probabilities. */
+    private boolean _hasPriors;
     /** True iff this node has been expanded. */
     private boolean _fullyExpanded;
     /** Random number generator. */
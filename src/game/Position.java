@@ -0,0 +1,51 @@
+package game;
+
+import java.util.List;
+
+/** A state of a two-player game between X and O that MCTS can search.
+ *
+ * @author Richard Hu
+ * */
+public interface Position {
+
+    /** Return a copy of this position that can be changed independently.
+     *
+     * @return Copy of this position.
+     * */
+    Position copy();
+
+    /** Return a list of all legal moves.
+     *
+     * @return List of all legal move strings.
+     * */
+    List<String> emptyPlaces();
+
+    /** Make a move for the current turn.
+     *
+     * @param place Move to make.
+     * @return True if the move was made, false if it is malformed or
+     * not legal.
+     * */
+    boolean put(String place);
+
+    /** Undo the last move made and return the position to one move prior. */
+    void undo();
+
+    /** Return a list of all moves made.
+     *
+     * @return List of all moves made.
+     * */
+    List<String> moves();
+
+    /** Return the current turn.
+     *
+     * @return Side to move.
+     * */
+    Piece turn();
+
+    /** Return the winner.
+     *
+     * @return null if there is no winner, E if tie, or the winning Piece.
+     * */
+    Piece winner();
+}
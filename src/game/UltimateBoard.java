@@ -0,0 +1,346 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static game.Piece.*;
+
+/** Represents the board of Ultimate Tic Tac Toe: nine Tic Tac Toe sub-boards
+ * laid out in a 3x3 meta-board. Winning a sub-board claims its square on the
+ * meta-board, and the game is won with a line on the meta-board. A move
+ * sends the opponent to the sub-board in the same position as the square
+ * just played. If that sub-board has been won or is full, the opponent may
+ * play in any open sub-board.
+ *
+ * Places are designated like on a 9x9 board, with columns a to i and rows
+ * 1 to 9 (e.g., e5 is the center square of the center sub-board).
+ *
+ * Each sub-board is stored as a 9-bit mask per side, using the same square
+ * numbering as Board, and the meta-board as 9-bit masks of the sub-boards
+ * won by each side or drawn.
+ *
+ * @author Richard Hu
+ * */
+public class UltimateBoard implements Position {
+
+    /** The number of rows and columns of a sub-board and of the meta-board. */
+    static final int SIZE = Board.BOARD_SIZE;
+
+    /** The number of squares of a sub-board and of the meta-board. */
+    static final int SQUARES = SIZE * SIZE;
+
+    /** The total number of possible rows and columns. */
+    static final int BOARD_SIZE = SIZE * SIZE;
+
+    /** The regular expression for a square designation (e.g., e5). */
+    static final Pattern SQ = Pattern.compile("([a-i][1-9])");
+
+    /** Place strings indexed by sub-board * SQUARES + square. */
+    static final String[] PLACES = new String[SQUARES * SQUARES];
+
+    static {
+        for (int col = 0; col < BOARD_SIZE; col++) {
+            for (int row = 0; row < BOARD_SIZE; row++) {
+                PLACES[index(col, row)] = "" + (char) ('a' + col) + (char) ('1' + row);
+            }
+        }
+    }
+
+    /** Initializes board with all empty spaces. */
+    public UltimateBoard() {
+        _x = new int[SQUARES];
+        _o = new int[SQUARES];
+        _targets = new int[SQUARES * SQUARES + 1];
+        _turn = X;
+        _target = ANY;
+    }
+
+    /** Initialize this board by copying from another.
+     *
+     * @param board Board to copy from.
+     * */
+    public UltimateBoard(UltimateBoard board) {
+        _x = board._x.clone();
+        _o = board._o.clone();
+        _targets = board._targets.clone();
+        _xMeta = board._xMeta;
+        _oMeta = board._oMeta;
+        _drawnMeta = board._drawnMeta;
+        _turn = board._turn;
+        _target = board._target;
+        _moves.addAll(board._moves);
+    }
+
+    @Override
+    public UltimateBoard copy() {
+        return new UltimateBoard(this);
+    }
+
+    /** Return the index of a place, given as sub-board * SQUARES + square.
+     *
+     * @param col Column.
+     * @param row Row.
+     * @return Index of place.
+     * */
+    static int index(int col, int row) {
+        int subBoard = row / SIZE * SIZE + col / SIZE;
+        int square = row % SIZE * SIZE + col % SIZE;
+        return subBoard * SQUARES + square;
+    }
+
+    /** Return a list of all legal places. Result is cached for quicker
+     * access in the future.
+     *
+     * @return List of all legal place strings.
+     * */
+    @Override
+    public List<String> emptyPlaces() {
+        if (_emptyPlacesInitialized) {
+            return _emptyPlaces;
+        }
+        List<String> emptyPlaces = new ArrayList<>();
+        if (winner() == null) {
+            for (int b = 0; b < SQUARES; b++) {
+                if (playable(b)) {
+                    int empty = ~(_x[b] | _o[b]) & Board.FULL;
+                    for (; empty != 0; empty &= empty - 1) {
+                        emptyPlaces.add(PLACES[b * SQUARES + Integer.numberOfTrailingZeros(empty)]);
+                    }
+                }
+            }
+        }
+        _emptyPlacesInitialized = true;
+        _emptyPlaces = emptyPlaces;
+        return emptyPlaces;
+    }
+
+    /** Put a piece of the current turn in the specified location on
+     * the board.
+     *
+     * @param col Column of place to put piece.
+     * @param row Row of place to put piece.
+     * @return True if piece was put on the place, false if the place
+     * is not empty, its sub-board may not be played in or the game is over.
+     * */
+    public boolean put(int col, int row) {
+        int index = index(col, row);
+        int b = index / SQUARES;
+        int bit = 1 << index % SQUARES;
+        if (winner() != null || !playable(b) || ((_x[b] | _o[b]) & bit) != 0) {
+            return false;
+        }
+        int[] own = _turn == X ? _x : _o;
+        own[b] |= bit;
+        if (hasLine(own[b])) {
+            if (_turn == X) {
+                _xMeta |= 1 << b;
+            } else {
+                _oMeta |= 1 << b;
+            }
+        } else if ((_x[b] | _o[b]) == Board.FULL) {
+            _drawnMeta |= 1 << b;
+        }
+        _targets[_moves.size()] = _target;
+        _moves.add(PLACES[index]);
+        int next = index % SQUARES;
+        _target = closed(next) ? ANY : next;
+        _turn = _turn.opposite();
+        _emptyPlacesInitialized = false;
+        return true;
+    }
+
+    /** Put a piece of the current turn in the specified location on
+     * the board.
+     *
+     * @param place Place to put piece.
+     * @return True if piece was put on the place, false if place string
+     * is malformed or the move is not legal.
+     * */
+    @Override
+    public boolean put(String place) {
+        if (SQ.matcher(place).matches()) {
+            return put(place.charAt(0) - 'a', place.charAt(1) - '1');
+        }
+        return false;
+    }
+
+    /** Undo the last move made and return the state of the board to
+     * one move prior. */
+    @Override
+    public void undo() {
+        String recent = _moves.remove(_moves.size() - 1);
+        int index = index(recent.charAt(0) - 'a', recent.charAt(1) - '1');
+        int b = index / SQUARES;
+        int bit = 1 << index % SQUARES;
+        _x[b] &= ~bit;
+        _o[b] &= ~bit;
+        _xMeta &= ~(1 << b);
+        _oMeta &= ~(1 << b);
+        _drawnMeta &= ~(1 << b);
+        _target = _targets[_moves.size()];
+        _turn = _turn.opposite();
+        _emptyPlacesInitialized = false;
+    }
+
+    /** Return a list of all moves made.
+     *
+     * @return _moves.
+     * */
+    @Override
+    public List<String> moves() {
+        return _moves;
+    }
+
+    /** Return the current turn.
+     *
+     * @return _turn.
+     * */
+    @Override
+    public Piece turn() {
+        return _turn;
+    }
+
+    /** Return the sub-board the current turn must play in.
+     *
+     * @return Index of the sub-board, given as row * SIZE + col of the
+     * meta-board, or -1 if any open sub-board may be played in.
+     * */
+    public int target() {
+        return _target;
+    }
+
+    /** Return the squares of the meta-board claimed by a piece as a bit mask.
+     *
+     * @param piece Piece to look for. E gives the drawn sub-boards.
+     * @return Mask of sub-boards won by piece, or drawn if piece is E.
+     * */
+    public int metaMask(Piece piece) {
+        switch (piece) {
+            case X:
+                return _xMeta;
+            case O:
+                return _oMeta;
+            default:
+                return _drawnMeta;
+        }
+    }
+
+    /** Return the winner.
+     *
+     * @return null if there is no winner, E if tie, or the winning Piece.
+     * */
+    @Override
+    public Piece winner() {
+        if (hasLine(_xMeta)) {
+            return X;
+        } else if (hasLine(_oMeta)) {
+            return O;
+        } else if ((_xMeta | _oMeta | _drawnMeta) == Board.FULL) {
+            return E;
+        }
+        return null;
+    }
+
+    /** Whether a sub-board has been won or is full.
+     *
+     * @param b Index of the sub-board.
+     * @return True iff no more moves can be made in the sub-board.
+     * */
+    private boolean closed(int b) {
+        return ((_xMeta | _oMeta | _drawnMeta) >>> b & 1) != 0;
+    }
+
+    /** Whether the current turn may play in a sub-board.
+     *
+     * @param b Index of the sub-board.
+     * @return True iff the sub-board is open and is the target, if any.
+     * */
+    private boolean playable(int b) {
+        return !closed(b) && (_target == ANY || _target == b);
+    }
+
+    /** Whether a mask holds a complete line.
+     *
+     * @param mask Mask of squares.
+     * @return True iff mask holds a line.
+     * */
+    private static boolean hasLine(int mask) {
+        for (int line : Board.LINES) {
+            if ((mask & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("===\n");
+        for (int r = BOARD_SIZE - 1; r >= 0; r--) {
+            sb.append("\t");
+            sb.append(r + 1);
+            for (int c = 0; c < BOARD_SIZE; c++) {
+                if (c > 0 && c % SIZE == 0) {
+                    sb.append(" |");
+                }
+                int index = index(c, r);
+                int bit = 1 << index % SQUARES;
+                sb.append(" ");
+                if ((_x[index / SQUARES] & bit) != 0) {
+                    sb.append(X);
+                } else if ((_o[index / SQUARES] & bit) != 0) {
+                    sb.append(O);
+                } else {
+                    sb.append("-");
+                }
+            }
+            sb.append("\n");
+            if (r > 0 && r % SIZE == 0) {
+                sb.append("\t  ------+-------+------\n");
+            }
+        }
+        sb.append("\t  a b c   d e f   g h i\n");
+        sb.append("===");
+        if (winner() == null) {
+            sb.append("\nNext move:  ");
+            sb.append(_turn);
+            if (_target != ANY) {
+                int col = _target % SIZE * SIZE;
+                int row = _target / SIZE * SIZE;
+                sb.append(" in ");
+                sb.append(PLACES[index(col, row)]);
+                sb.append("-");
+                sb.append(PLACES[index(col + SIZE - 1, row + SIZE - 1)]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Target meaning any open sub-board may be played in. */
+    private static final int ANY = -1;
+
+    /** Squares held by X in each sub-board. */
+    private final int[] _x;
+    /** Squares held by O in each sub-board. */
+    private final int[] _o;
+    /** Sub-boards won by X. */
+    private int _xMeta;
+    /** Sub-boards won by O. */
+    private int _oMeta;
+    /** Sub-boards that are full without a winner. */
+    private int _drawnMeta;
+    /** Current turn. */
+    private Piece _turn;
+    /** Sub-board the current turn must play in, or ANY. */
+    private int _target;
+    /** Target before each move made so far, indexed by move number. */
+    private final int[] _targets;
+    /** List of all moves made so far. */
+    private List<String> _moves = new ArrayList<>();
+    /** Cached list of all legal places on the board. */
+    private List<String> _emptyPlaces = new ArrayList<>();
+    /** True iff _emptyPlaces is up-to-date. */
+    private boolean _emptyPlacesInitialized = false;
+}
@@ -0,0 +1,89 @@
+package game;
+
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static game.Piece.*;
+
+/** Tests for the functionality of UltimateBoard class.
+ *
+ * @author Richard Hu
+ * */
+public class UltimateBoardTests {
+
+    @Test
+    public void targetTest() {
+        UltimateBoard b = new UltimateBoard();
+        assertEquals(81, b.emptyPlaces().size());
+        assertEquals(-1, b.target());
+
+        assertTrue(b.put("e5"));
+        assertEquals(4, b.target());
+        assertFalse(b.put("a1"));
+        assertFalse(b.put("e5"));
+        assertEquals(8, b.emptyPlaces().size());
+
+        assertTrue(b.put("f6"));
+        assertEquals(8, b.target());
+        List<String> emptyPlaces = new ArrayList<>();
+        for (String col : new String[] {"g", "h", "i"}) {
+            for (String row : new String[] {"7", "8", "9"}) {
+                emptyPlaces.add(col + row);
+            }
+        }
+        assertTrue(b.emptyPlaces().containsAll(emptyPlaces));
+        assertEquals(emptyPlaces.size(), b.emptyPlaces().size());
+    }
+
+    @Test
+    public void subBoardTest() {
+        UltimateBoard b = new UltimateBoard();
+        for (String move : new String[] {"d4", "b2", "e4", "e2", "f4"}) {
+            assertTrue(move, b.put(move));
+        }
+        assertEquals(1 << 4, b.metaMask(X));
+        assertEquals(2, b.target());
+        assertFalse(b.put("a1"));
+
+        assertTrue(b.put("h3"));
+        assertEquals(7, b.target());
+        assertTrue(b.put("e8"));
+        assertEquals(-1, b.target());
+        assertTrue(b.emptyPlaces().contains("i9"));
+        assertFalse(b.emptyPlaces().contains("e5"));
+
+        b.undo();
+        assertEquals(7, b.target());
+        b.undo();
+        b.undo();
+        assertEquals(0, b.metaMask(X));
+        assertEquals(4, b.target());
+        assertEquals(X, b.turn());
+        assertTrue(b.emptyPlaces().contains("e5"));
+    }
+
+    @Test
+    public void winnerTest() {
+        UltimateBoard b = new UltimateBoard();
+        String[] moves = {
+            "g6", "a8", "c4", "i2", "i6", "h8", "d6", "b8", "d4", "b2", "f4", "g1", "c1",
+            "g2", "c5", "h5", "d5", "a5", "c6", "i9", "g7", "a3", "a7", "c2", "h6"
+        };
+        for (String move : moves) {
+            assertNull(b.winner());
+            assertTrue(move, b.put(move));
+        }
+        assertEquals(0b000111000, b.metaMask(X));
+        assertEquals(X, b.winner());
+        assertEquals(0, b.emptyPlaces().size());
+        assertFalse(b.put("e5"));
+
+        UltimateBoard b1 = b.copy();
+        b1.undo();
+        assertNull(b1.winner());
+        assertEquals(X, b.winner());
+        assertEquals(moves.length - 1, b1.moves().size());
+    }
+}